@@ -17,4 +17,64 @@ dependencies {
 
 tasks.test {
     useJUnitPlatform()
-}
\ No newline at end of file
+}
+tasks.jar {
+    manifest {
+        attributes["Main-Class"] = "org.example.GenerateExample"
+    }
+}
+
+val generatorSnapshot = layout.buildDirectory.file("generator/metadata.snapshot")
+val generatorCdsArchive = layout.buildDirectory.file("generator/generator.jsa")
+// Обучение идёт по представительному набору типов: снимок должен покрыть интерфейсы
+// и абстрактные классы, реализации которых ищутся сканированием (Shape, Inventory)
+val generatorTrainingTypes = listOf(
+    "org.example.classes.Example",
+    "org.example.classes.Shape",
+    "org.example.classes.Cart",
+    "org.example.classes.BinaryTreeNode",
+    "org.example.classes.Inventory",
+    "org.example.classes.Catalog",
+    "org.example.classes.Order",
+    "org.example.classes.Review",
+)
+val generatorTrainingArgs = generatorTrainingTypes.flatMap { listOf("--class", it) } + listOf(
+    "--count", "1000",
+    "--out", layout.buildDirectory.dir("generator/training").get().asFile.path,
+)
+
+// Обучающий прогон: пишет снимок метаданных генератора и AppCDS-архив классов.
+// AppCDS архивирует классы только из jar, поэтому запускаем собранный jar, а не build/classes.
+val generatorCds by tasks.registering(JavaExec::class) {
+    group = "build"
+    description = "Runs a training pass of the generator and dumps its metadata snapshot and CDS archive."
+    dependsOn(tasks.jar)
+    classpath = files(tasks.jar.flatMap { it.archiveFile })
+    mainClass.set("org.example.GenerateExample")
+    args(generatorTrainingArgs)
+    outputs.files(generatorSnapshot, generatorCdsArchive)
+    doFirst {
+        generatorCdsArchive.get().asFile.parentFile.mkdirs()
+        jvmArgs(
+            "-XX:ArchiveClassesAtExit=${generatorCdsArchive.get().asFile}",
+            "-Dgenerator.snapshot.train=${generatorSnapshot.get().asFile}",
+        )
+    }
+}
+
+// Быстрый запуск: классы из CDS-архива, метаданные из снимка
+tasks.register<JavaExec>("runGenerator") {
+    group = "application"
+    description = "Runs the generator launcher with the CDS archive and metadata snapshot."
+    dependsOn(generatorCds)
+    classpath = files(tasks.jar.flatMap { it.archiveFile })
+    mainClass.set("org.example.GenerateExample")
+    args("--class", "org.example.classes.Shape", "--count", "10")
+    doFirst {
+        jvmArgs(
+            "-XX:SharedArchiveFile=${generatorCdsArchive.get().asFile}",
+            "-Dgenerator.snapshot=${generatorSnapshot.get().asFile}",
+            "-Dgenerator.timing=true",
+        )
+    }
+}
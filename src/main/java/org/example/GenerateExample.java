@@ -1,17 +1,197 @@
 package org.example;
 
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.example.classes.Example;
 import org.example.generator.Generator;
+import org.example.generator.JsonLinesWriter;
+import org.example.generator.MetadataSnapshot;
 
 public class GenerateExample {
+
+    // -Dgenerator.snapshot=<файл>        загрузить снимок метаданных при старте
+    // -Dgenerator.snapshot.train=<файл>  записать снимок после прогона (обучающий запуск)
+    // -Dgenerator.timing=true            вывести в stderr время до первого объекта
+    private static final String SNAPSHOT_PROPERTY = "generator.snapshot";
+    private static final String TRAIN_PROPERTY = "generator.snapshot.train";
+    private static final String TIMING_PROPERTY = "generator.timing";
+
+    private static final String USAGE = """
+            Usage: GenerateExample [options]
+              --class <name>   type to generate (default: org.example.classes.Example);
+                               may be repeated, each type is exported in turn
+              --count <n>      number of objects (default: 1)
+              --seed <n>       random seed (default: 0)
+              --depth <n>      maximum object depth (default: 3)
+              --size <n>       maximum collection size (default: 3)
+              --out <dir>      output directory; JSON Lines go to stdout when omitted;
+                               with several types each gets a subdirectory named after it
+              --shards <n>     number of output files generated in parallel (default: 1)
+            """;
+
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    // Разводит seed'ы соседних шардов, чтобы их последовательности не пересекались
+    private static final long SHARD_SEED_STEP = 0x9E3779B97F4A7C15L;
+
+    private static final AtomicBoolean FIRST_OBJECT_REPORTED = new AtomicBoolean();
+
+    private record Options(List<Class<?>> types, long count, long seed, int depth, int size, Path out, int shards) {}
+
     public static void main(String[] args) {
-        var gen = new Generator();
+        Options options;
+        try {
+            options = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+            return;
+        }
+
         try {
-            Object generated = gen.generateValueOfType(Example.class);
-            System.out.println(generated);
+            String snapshot = System.getProperty(SNAPSHOT_PROPERTY);
+            if (snapshot != null && Files.isRegularFile(Path.of(snapshot))) {
+                MetadataSnapshot.load(Path.of(snapshot));
+            }
+
+            if (options.out() == null) {
+                Writer stdout = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+                JsonLinesWriter writer = new JsonLinesWriter(stdout);
+                for (Class<?> type : options.types()) {
+                    generateShard(options, type, 0, options.count(), writer);
+                }
+                writer.flush();
+            } else {
+                for (Class<?> type : options.types()) {
+                    long started = System.nanoTime();
+                    Path dir = options.types().size() == 1 ? options.out() : options.out().resolve(type.getName());
+                    exportShards(options, type, dir);
+                    long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+                    System.err.println("Exported " + options.count() + " objects of " + type.getName()
+                            + " into " + options.shards() + " shard(s) in " + elapsedMillis + " ms");
+                }
+            }
+
+            String train = System.getProperty(TRAIN_PROPERTY);
+            if (train != null) {
+                MetadataSnapshot.write(Path.of(train));
+            }
         } catch (Throwable e) {
             throw new RuntimeException(e);
         }
     }
-}
\ No newline at end of file
+
+    private static void exportShards(Options options, Class<?> type, Path dir) throws Exception {
+        Files.createDirectories(dir);
+        int threads = Math.min(options.shards(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> shards = new ArrayList<>(options.shards());
+            for (int shard = 0; shard < options.shards(); shard++) {
+                int index = shard;
+                // Первые count % shards шардов получают на один объект больше
+                long shardCount = options.count() / options.shards() + (shard < options.count() % options.shards() ? 1 : 0);
+                Path file = dir.resolve(String.format("part-%05d.jsonl", shard));
+                shards.add(executor.submit(() -> {
+                    Writer fileWriter = new BufferedWriter(
+                            new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+                    try (JsonLinesWriter writer = new JsonLinesWriter(fileWriter)) {
+                        generateShard(options, type, index, shardCount, writer);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> shard : shards) {
+                shard.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void generateShard(Options options, Class<?> type, int shard, long count, JsonLinesWriter writer) throws Exception {
+        // У каждого шарда свой генератор и seed: результат не зависит от порядка выполнения потоков
+        var gen = new Generator(new Random(options.seed() + shard * SHARD_SEED_STEP), options.depth(), options.size());
+        boolean timing = Boolean.getBoolean(TIMING_PROPERTY);
+        for (long i = 0; i < count; i++) {
+            Object generated = gen.generateValueOfType(type);
+            if (timing && FIRST_OBJECT_REPORTED.compareAndSet(false, true)) {
+                reportTimeToFirstObject(System.currentTimeMillis());
+            }
+            writer.write(generated);
+        }
+    }
+
+    private static Options parse(String[] args) {
+        List<Class<?>> types = new ArrayList<>();
+        long count = 1;
+        long seed = 0;
+        int depth = 3;
+        int size = 3;
+        Path out = null;
+        int shards = 1;
+
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for option: " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--class" -> types.add(loadClass(value));
+                case "--count" -> count = parseNonNegative(option, value);
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--depth" -> depth = (int) parseNonNegative(option, value);
+                case "--size" -> size = (int) parseNonNegative(option, value);
+                case "--out" -> out = Path.of(value);
+                case "--shards" -> shards = (int) Math.max(1, parseNonNegative(option, value));
+                default -> throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+        if (types.isEmpty()) {
+            types.add(Example.class);
+        }
+        return new Options(List.copyOf(types), count, seed, depth, size, out, out == null ? 1 : shards);
+    }
+
+    private static Class<?> loadClass(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("Class not found: " + name);
+        }
+    }
+
+    private static long parseNonNegative(String option, String value) {
+        try {
+            long parsed = Long.parseLong(value);
+            if (parsed < 0) {
+                throw new IllegalArgumentException("Option " + option + " must not be negative: " + value);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Option " + option + " expects a number: " + value);
+        }
+    }
+
+    private static void reportTimeToFirstObject(long firstObjectAt) {
+        // Время фиксируется до обращения к management API, чтобы не учитывать его загрузку
+        long startedAt = ManagementFactory.getRuntimeMXBean().getStartTime();
+        System.err.println("time-to-first-object: " + (firstObjectAt - startedAt) + " ms");
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.classes;
+
+import org.example.generator.Generatable;
+
+@Generatable
+public record CardPayment(String cardNumber, double amount) implements Payment {
+
+    @Override
+    public double getAmount() {
+        return amount;
+    }
+}
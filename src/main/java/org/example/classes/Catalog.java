@@ -0,0 +1,25 @@
+package org.example.classes;
+
+import java.util.List;
+import java.util.Map;
+
+import org.example.generator.Generatable;
+
+@Generatable
+public class Catalog {
+    private List<List<Product>> shelves;
+    private Map<String, List<Product>> byCategory;
+
+    public Catalog(List<List<Product>> shelves, Map<String, List<Product>> byCategory) {
+        this.shelves = shelves;
+        this.byCategory = byCategory;
+    }
+
+    public List<List<Product>> getShelves() {
+        return shelves;
+    }
+
+    public Map<String, List<Product>> getByCategory() {
+        return byCategory;
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.classes;
+
+import java.util.List;
+
+import org.example.generator.Generatable;
+
+@Generatable
+public interface Container<T> {
+    List<T> getItems();
+}
@@ -0,0 +1,17 @@
+package org.example.classes;
+
+import org.example.generator.Generatable;
+
+@Generatable
+public class InstantTransferPayment extends TransferPayment {
+    private String gateway;
+
+    public InstantTransferPayment(String account, double amount, String gateway) {
+        super(account, amount);
+        this.gateway = gateway;
+    }
+
+    public String getGateway() {
+        return gateway;
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.classes;
+
+import java.util.List;
+
+public abstract class Inventory<T> {
+    protected List<T> items;
+    protected T[] featured;
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public T[] getFeatured() {
+        return featured;
+    }
+}
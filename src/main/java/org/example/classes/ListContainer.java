@@ -0,0 +1,18 @@
+package org.example.classes;
+
+import java.util.List;
+
+import org.example.generator.Generatable;
+
+@Generatable
+public class ListContainer<T> implements Container<T> {
+    private List<T> items;
+
+    public ListContainer() {
+    }
+
+    @Override
+    public List<T> getItems() {
+        return items;
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.classes;
+
+import java.util.List;
+
+import org.example.generator.Generatable;
+
+@Generatable
+public record Order(String id, List<Product> items, Payment payment) {
+}
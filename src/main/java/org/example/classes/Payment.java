@@ -0,0 +1,8 @@
+package org.example.classes;
+
+import org.example.generator.Generatable;
+
+@Generatable
+public sealed interface Payment permits CardPayment, CashPayment, TransferPayment {
+    double getAmount();
+}
@@ -45,7 +45,7 @@ public class Product {
 
     @Override
     public String toString() {
-        return super.toString();
+        return "Product(" + name + ", " + price + ")";
     }
 
 }
@@ -0,0 +1,10 @@
+package org.example.classes;
+
+import org.example.generator.Generatable;
+
+@Generatable
+public class ProductInventory extends Inventory<Product> {
+
+    public ProductInventory() {
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.classes;
+
+import org.example.generator.Generatable;
+import org.example.generator.Normal;
+import org.example.generator.Uniform;
+import org.example.generator.Weighted;
+import org.example.generator.Zipf;
+
+@Generatable
+public record Review(
+        @Zipf(size = 1000, exponent = 1.1) long productId,
+        @Uniform(min = 1, max = 5) int rating,
+        @Weighted(weights = {6, 3, 1}) Sentiment sentiment,
+        @Weighted(values = {"web", "mobile", "store"}, weights = {5, 4, 1}) String channel,
+        @Normal(mean = 120, stddev = 40) double wordCount) {
+}
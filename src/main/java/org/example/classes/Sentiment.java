@@ -0,0 +1,7 @@
+package org.example.classes;
+
+public enum Sentiment {
+    POSITIVE,
+    NEUTRAL,
+    NEGATIVE
+}
@@ -0,0 +1,23 @@
+package org.example.classes;
+
+import org.example.generator.Generatable;
+
+@Generatable
+public non-sealed class TransferPayment implements Payment {
+    private String account;
+    private double amount;
+
+    public TransferPayment(String account, double amount) {
+        this.account = account;
+        this.amount = amount;
+    }
+
+    public String getAccount() {
+        return account;
+    }
+
+    @Override
+    public double getAmount() {
+        return amount;
+    }
+}
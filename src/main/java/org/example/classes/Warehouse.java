@@ -0,0 +1,15 @@
+package org.example.classes;
+
+import org.example.generator.Generatable;
+
+@Generatable
+public class Warehouse {
+    private Container<Product> stock;
+
+    public Warehouse() {
+    }
+
+    public Container<Product> getStock() {
+        return stock;
+    }
+}
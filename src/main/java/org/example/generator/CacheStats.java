@@ -0,0 +1,9 @@
+package org.example.generator;
+
+public record CacheStats(String name, int size, int maxSize, long hits, long misses, long evictions) {
+
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
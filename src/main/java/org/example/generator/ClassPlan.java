@@ -0,0 +1,137 @@
+package org.example.generator;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+final class ClassPlan {
+
+    private static final int MAX_CACHED_PLANS = 4096;
+
+    private static final MetadataCache<ClassPlan> PLANS =
+            new MetadataCache<>("class-plans", MAX_CACHED_PLANS, ClassPlan::build);
+
+    private final Class<?> type;
+    private final List<Constructor<?>> constructors;
+    private final List<Field> settableFields;
+    private final Constructor<?> canonicalConstructor;
+    private final List<RecordComponent> recordComponents;
+    private volatile List<Field> instanceFields;
+
+    private ClassPlan(Class<?> type, List<Constructor<?>> constructors, List<Field> settableFields,
+                      Constructor<?> canonicalConstructor, List<RecordComponent> recordComponents) {
+        this.type = type;
+        this.constructors = constructors;
+        this.settableFields = settableFields;
+        this.canonicalConstructor = canonicalConstructor;
+        this.recordComponents = recordComponents;
+    }
+
+    static ClassPlan of(Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    static MetadataCache<ClassPlan> cache() {
+        return PLANS;
+    }
+
+    List<Constructor<?>> constructors() {
+        return constructors;
+    }
+
+    List<Field> settableFields() {
+        return settableFields;
+    }
+
+    // Все нестатические поля, включая final; нужны только при чтении объектов,
+    // поэтому вычисляются лениво
+    List<Field> instanceFields() {
+        List<Field> fields = instanceFields;
+        if (fields == null) {
+            fields = visibleFields(type);
+            instanceFields = fields;
+        }
+        return fields;
+    }
+
+    boolean isRecord() {
+        return canonicalConstructor != null;
+    }
+
+    Constructor<?> canonicalConstructor() {
+        return canonicalConstructor;
+    }
+
+    List<RecordComponent> recordComponents() {
+        return recordComponents;
+    }
+
+    private static ClassPlan build(Class<?> type) {
+        List<Constructor<?>> constructors = List.of(type.getDeclaredConstructors());
+
+        List<Field> fields = collectFields(type, false);
+
+        if (!type.isRecord()) {
+            rejectDistributionsOnFinalFields(type);
+            return new ClassPlan(type, constructors, fields, null, List.of());
+        }
+
+        RecordComponent[] components = type.getRecordComponents();
+        Class<?>[] parameterTypes = new Class<?>[components.length];
+        for (int i = 0; i < components.length; i++) {
+            parameterTypes[i] = components[i].getType();
+        }
+        try {
+            Constructor<?> canonical = type.getDeclaredConstructor(parameterTypes);
+            canonical.setAccessible(true);
+            return new ClassPlan(type, constructors, fields, canonical, List.of(components));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("Record has no canonical constructor: " + type.getName(), e);
+        }
+    }
+
+    // Распределения применяются при дозаполнении полей после конструктора, а final-поле
+    // задаёт только конструктор: аннотация на нём молча не действовала бы
+    private static void rejectDistributionsOnFinalFields(Class<?> type) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                int mod = field.getModifiers();
+                if (Modifier.isFinal(mod) && !Modifier.isStatic(mod) && Distributions.isDeclaredOn(field)) {
+                    throw new GeneratorConfigurationException("Distribution cannot be applied to final field " + field);
+                }
+            }
+        }
+    }
+
+    private static List<Field> collectFields(Class<?> type, boolean includeFinal) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                int mod = field.getModifiers();
+                // Синтетические поля (например, this$0 внутренних классов) не относятся к данным объекта
+                if (Modifier.isStatic(mod) || field.isSynthetic() || (!includeFinal && Modifier.isFinal(mod))) continue;
+                field.setAccessible(true);
+                fields.add(field);
+            }
+        }
+        return List.copyOf(fields);
+    }
+
+    // При чтении поле суперкласса, скрытое одноимённым полем наследника, пропускается:
+    // иначе в объекте оказались бы два ключа с одним именем
+    private static List<Field> visibleFields(Class<?> type) {
+        Set<String> names = new HashSet<>();
+        List<Field> fields = new ArrayList<>();
+        for (Field field : collectFields(type, true)) {
+            if (names.add(field.getName())) {
+                fields.add(field);
+            }
+        }
+        return List.copyOf(fields);
+    }
+}
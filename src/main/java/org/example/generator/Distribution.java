@@ -0,0 +1,7 @@
+package org.example.generator;
+
+@FunctionalInterface
+public interface Distribution {
+    // Распределение компилируется один раз под тип поля; дальше выборка за O(1)
+    Sampler compile(Class<?> valueType);
+}
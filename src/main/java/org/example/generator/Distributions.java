@@ -0,0 +1,242 @@
+package org.example.generator;
+
+import java.lang.reflect.AnnotatedElement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.DoubleFunction;
+
+public final class Distributions {
+
+    private Distributions() {}
+
+    public static Distribution uniform(double min, double max) {
+        if (!(min <= max)) {
+            throw new IllegalArgumentException("Uniform distribution requires min <= max: [" + min + ", " + max + "]");
+        }
+        return valueType -> {
+            DoubleFunction<Object> convert = numericConverter(valueType);
+            checkRange(valueType, min, max);
+            if (isIntegral(valueType)) {
+                // Для целых границы включительные
+                long low = (long) Math.ceil(min);
+                long span = (long) Math.floor(max) - low + 1;
+                if (span <= 0) {
+                    throw new IllegalArgumentException("Uniform range contains no integers: [" + min + ", " + max + "]");
+                }
+                return random -> convert.apply(low + (long) (random.nextDouble() * span));
+            }
+            double width = max - min;
+            return random -> convert.apply(min + random.nextDouble() * width);
+        };
+    }
+
+    public static Distribution normal(double mean, double stddev) {
+        if (!(stddev >= 0)) {
+            throw new IllegalArgumentException("Normal distribution requires non-negative stddev: " + stddev);
+        }
+        return valueType -> {
+            DoubleFunction<Object> convert = numericConverter(valueType);
+            // Хвосты нормального распределения не ограничены, поэтому проверяется только среднее,
+            // а выборки прижимаются к диапазону типа (см. numericConverter)
+            checkRange(valueType, mean, mean);
+            return random -> convert.apply(mean + stddev * random.nextGaussian());
+        };
+    }
+
+    public static Distribution zipf(int size, double exponent) {
+        AliasTable ranks = new AliasTable(zipfWeights(size, exponent));
+        return valueType -> {
+            DoubleFunction<Object> convert = numericConverter(valueType);
+            checkRange(valueType, 1, size);
+            return random -> convert.apply(ranks.sample(random) + 1);
+        };
+    }
+
+    public static Distribution zipf(List<?> values, double exponent) {
+        AliasTable ranks = new AliasTable(zipfWeights(values.size(), exponent));
+        return valueType -> {
+            Object[] converted = convertAll(values, valueType);
+            return random -> converted[ranks.sample(random)];
+        };
+    }
+
+    public static Distribution weighted(List<?> values, double... weights) {
+        if (values.size() != weights.length) {
+            throw new IllegalArgumentException("Expected " + values.size() + " weights, got " + weights.length);
+        }
+        AliasTable table = new AliasTable(weights);
+        return valueType -> {
+            Object[] converted = convertAll(values, valueType);
+            return random -> converted[table.sample(random)];
+        };
+    }
+
+    public static <E extends Enum<E>> Distribution enumWeights(Class<E> enumType, double... weights) {
+        return weighted(List.of(enumType.getEnumConstants()), weights);
+    }
+
+    // Распределение, объявленное аннотацией на поле или компоненте записи, либо null
+    static Sampler fromAnnotations(AnnotatedElement element, Class<?> valueType) {
+        try {
+            return compileAnnotations(element, valueType);
+        } catch (IllegalArgumentException e) {
+            throw new GeneratorConfigurationException("Invalid distribution on " + element + ": " + e.getMessage(), e);
+        }
+    }
+
+    static boolean isDeclaredOn(AnnotatedElement element) {
+        return element.isAnnotationPresent(Uniform.class) || element.isAnnotationPresent(Normal.class)
+                || element.isAnnotationPresent(Zipf.class) || element.isAnnotationPresent(Weighted.class);
+    }
+
+    private static Sampler compileAnnotations(AnnotatedElement element, Class<?> valueType) {
+        Distribution distribution = null;
+        int declared = 0;
+
+        Uniform uniform = element.getAnnotation(Uniform.class);
+        if (uniform != null) {
+            distribution = uniform(uniform.min(), uniform.max());
+            declared++;
+        }
+        Normal normal = element.getAnnotation(Normal.class);
+        if (normal != null) {
+            distribution = normal(normal.mean(), normal.stddev());
+            declared++;
+        }
+        Zipf zipf = element.getAnnotation(Zipf.class);
+        if (zipf != null) {
+            distribution = zipf.values().length > 0
+                    ? zipf(List.of(zipf.values()), zipf.exponent())
+                    : zipf(zipf.size(), zipf.exponent());
+            declared++;
+        }
+        Weighted weighted = element.getAnnotation(Weighted.class);
+        if (weighted != null) {
+            List<?> values = weighted.values().length == 0 && valueType.isEnum()
+                    ? List.of(valueType.getEnumConstants())
+                    : List.of(weighted.values());
+            distribution = weighted(values, weighted.weights());
+            declared++;
+        }
+
+        if (declared > 1) {
+            throw new IllegalArgumentException("only one distribution may be declared");
+        }
+        return distribution == null ? null : distribution.compile(valueType);
+    }
+
+    private static double[] zipfWeights(int size, double exponent) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Zipf distribution requires a positive size: " + size);
+        }
+        double[] weights = new double[size];
+        for (int rank = 1; rank <= size; rank++) {
+            weights[rank - 1] = 1.0 / Math.pow(rank, exponent);
+        }
+        return weights;
+    }
+
+    private static boolean isIntegral(Class<?> type) {
+        return type == int.class || type == Integer.class
+                || type == long.class || type == Long.class
+                || type == short.class || type == Short.class
+                || type == byte.class || type == Byte.class;
+    }
+
+    // Сужение насыщающее: значение за пределами типа прижимается к границе, а не переполняется
+    private static DoubleFunction<Object> numericConverter(Class<?> type) {
+        if (type == int.class || type == Integer.class) return v -> (int) Math.round(clamp(v, Integer.MIN_VALUE, Integer.MAX_VALUE));
+        if (type == long.class || type == Long.class) return v -> Math.round(v);
+        if (type == short.class || type == Short.class) return v -> (short) Math.round(clamp(v, Short.MIN_VALUE, Short.MAX_VALUE));
+        if (type == byte.class || type == Byte.class) return v -> (byte) Math.round(clamp(v, Byte.MIN_VALUE, Byte.MAX_VALUE));
+        if (type == double.class || type == Double.class) return v -> v;
+        if (type == float.class || type == Float.class) return v -> (float) clamp(v, -Float.MAX_VALUE, Float.MAX_VALUE);
+        throw new IllegalArgumentException("Numeric distribution is not applicable to type: " + type.getName());
+    }
+
+    // Объявленный диапазон должен помещаться в тип поля, иначе значения исказились бы молча
+    private static void checkRange(Class<?> type, double low, double high) {
+        double min;
+        double max;
+        if (type == int.class || type == Integer.class) {
+            min = Integer.MIN_VALUE;
+            max = Integer.MAX_VALUE;
+        } else if (type == long.class || type == Long.class) {
+            min = Long.MIN_VALUE;
+            max = Long.MAX_VALUE;
+        } else if (type == short.class || type == Short.class) {
+            min = Short.MIN_VALUE;
+            max = Short.MAX_VALUE;
+        } else if (type == byte.class || type == Byte.class) {
+            min = Byte.MIN_VALUE;
+            max = Byte.MAX_VALUE;
+        } else if (type == float.class || type == Float.class) {
+            min = -Float.MAX_VALUE;
+            max = Float.MAX_VALUE;
+        } else {
+            return;
+        }
+        if (low < min || high > max) {
+            throw new IllegalArgumentException("Range [" + low + ", " + high + "] does not fit type "
+                    + type.getName() + " [" + min + ", " + max + "]");
+        }
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static Object[] convertAll(List<?> values, Class<?> valueType) {
+        Object[] converted = new Object[values.size()];
+        for (int i = 0; i < converted.length; i++) {
+            converted[i] = convert(values.get(i), valueType);
+        }
+        return converted;
+    }
+
+    // Значения из аннотаций приходят строками и приводятся к типу поля при компиляции
+    private static Object convert(Object value, Class<?> type) {
+        Objects.requireNonNull(value, "value");
+        Class<?> boxed = box(type);
+        if (boxed.isInstance(value)) {
+            return value;
+        }
+        if (!(value instanceof String literal)) {
+            throw new IllegalArgumentException("Value " + value + " is not assignable to " + type.getName());
+        }
+        try {
+            if (boxed.isEnum()) return enumConstant(boxed, literal);
+            if (boxed == Integer.class) return Integer.valueOf(literal);
+            if (boxed == Long.class) return Long.valueOf(literal);
+            if (boxed == Short.class) return Short.valueOf(literal);
+            if (boxed == Byte.class) return Byte.valueOf(literal);
+            if (boxed == Double.class) return Double.valueOf(literal);
+            if (boxed == Float.class) return Float.valueOf(literal);
+            if (boxed == Boolean.class) return Boolean.valueOf(literal);
+            if (boxed == Character.class && literal.length() == 1) return literal.charAt(0);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Value " + literal + " is not a valid " + type.getName(), e);
+        }
+        throw new IllegalArgumentException("Value " + literal + " is not assignable to " + type.getName());
+    }
+
+    private static Object enumConstant(Class<?> enumType, String name) {
+        return Arrays.stream(enumType.getEnumConstants())
+                .filter(constant -> ((Enum<?>) constant).name().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No constant " + name + " in " + enumType.getName()));
+    }
+
+    private static Class<?> box(Class<?> type) {
+        if (!type.isPrimitive()) return type;
+        if (type == int.class) return Integer.class;
+        if (type == long.class) return Long.class;
+        if (type == double.class) return Double.class;
+        if (type == float.class) return Float.class;
+        if (type == short.class) return Short.class;
+        if (type == byte.class) return Byte.class;
+        if (type == boolean.class) return Boolean.class;
+        return Character.class;
+    }
+}
@@ -5,10 +5,8 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
-import java.lang.reflect.Parameter;
-import java.lang.reflect.Type;
+import java.lang.reflect.RecordComponent;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -30,25 +28,42 @@ public class Generator {
     private final Random random;
     private final int maxDepth;
     private final int maxCollectionSize;
+    // Распределения, заданные через Builder: класс, объявивший поле -> имя поля -> сэмплер.
+    // Имеют приоритет над аннотациями на полях.
+    private final Map<Class<?>, Map<String, Sampler>> distributions;
 
     public Generator() {
         this(new Random(), DEFAULT_MAX_DEPTH, DEFAULT_MAX_COLLECTION_SIZE);
     }
 
     public Generator(Random random, int maxDepth, int maxCollectionSize) {
+        this(random, maxDepth, maxCollectionSize, Map.of());
+    }
+
+    private Generator(Random random, int maxDepth, int maxCollectionSize, Map<Class<?>, Map<String, Sampler>> distributions) {
         this.random = Objects.requireNonNull(random, "random");
         this.maxDepth = Math.max(1, maxDepth);
         this.maxCollectionSize = Math.max(0, maxCollectionSize);
+        this.distributions = distributions;
     }
 
-    public Object generateValueOfType(Class<?> clazz) throws InvocationTargetException, InstantiationException, IllegalAccessException {
-        return generateValueOfType(clazz, 0);
+    public static Builder builder() {
+        return new Builder();
     }
 
-    private Object generateValueOfType(Class<?> clazz, int depth) throws InvocationTargetException, InstantiationException, IllegalAccessException {
+    public static List<CacheStats> cacheStats() {
+        return List.of(ImplementationFinder.cache().stats(), ClassPlan.cache().stats(), TypeResolver.cache().stats());
+    }
+
+    public Object generateValueOfType(Class<?> clazz) throws InvocationTargetException, InstantiationException, IllegalAccessException {
         if (clazz == null) {
             return null;
         }
+        return generateFieldValue(ResolvedType.of(clazz), 0);
+    }
+
+    private Object generateValueOfType(ResolvedType type, int depth) throws InvocationTargetException, InstantiationException, IllegalAccessException {
+        Class<?> clazz = type.raw();
 
         Object simpleValue = tryGenerateSimpleValue(clazz);
         if (simpleValue != null) {
@@ -61,8 +76,17 @@ public class Generator {
         }
 
         Class<?> concreteClass = resolveConcreteClass(clazz);
-        Object instance = instantiate(concreteClass, depth);
-        populateFields(instance, depth + 1);
+        // Аргументы запрошенного типа (например, Container<Product>) переносятся
+        // на параметры найденной реализации
+        ResolvedType concreteType = type.implementation(concreteClass);
+        ClassPlan plan = ClassPlan.of(concreteClass);
+        // Запись нельзя дозаполнить после создания, поэтому все компоненты
+        // генерируются сразу и канонический конструктор вызывается один раз
+        if (plan.isRecord()) {
+            return instantiateRecord(plan, concreteType, depth + 1);
+        }
+        Object instance = instantiate(plan, concreteType, depth);
+        populateFields(instance, plan, concreteType, depth + 1);
         return instance;
     }
 
@@ -103,21 +127,28 @@ public class Generator {
         return clazz;
     }
 
-    private Object instantiate(Class<?> clazz, int depth) throws InvocationTargetException, InstantiationException, IllegalAccessException {
-        List<Constructor<?>> constructors = new ArrayList<>(Arrays.asList(clazz.getDeclaredConstructors()));
+    private Object instantiate(ClassPlan plan, ResolvedType type, int depth) throws InvocationTargetException, InstantiationException, IllegalAccessException {
+        List<Constructor<?>> constructors = plan.constructors();
         if (constructors.isEmpty()) {
-            throw new IllegalArgumentException("Type has no accessible constructors: " + clazz.getName());
+            throw new IllegalArgumentException("Type has no accessible constructors: " + type.raw().getName());
+        }
+        List<List<ResolvedType>> parameterTypes = type.members().constructors();
+
+        // Перемешиваем индексы, чтобы конструкторы и типы их параметров оставались согласованы
+        List<Integer> order = new ArrayList<>(constructors.size());
+        for (int i = 0; i < constructors.size(); i++) {
+            order.add(i);
         }
-        Collections.shuffle(constructors, random);
+        Collections.shuffle(order, random);
 
-        for (Constructor<?> constructor : constructors) {
-            Parameter[] parameters = constructor.getParameters();
-            Object[] args = new Object[parameters.length];
+        for (int index : order) {
+            List<ResolvedType> parameters = parameterTypes.get(index);
+            Object[] args = new Object[parameters.size()];
             boolean success = true;
 
-            for (int i = 0; i < parameters.length; i++) {
+            for (int i = 0; i < args.length; i++) {
                 try {
-                    args[i] = generateParameterValue(parameters[i], depth + 1);
+                    args[i] = generateParameterValue(parameters.get(i), depth + 1);
                 } catch (IllegalArgumentException e) {
                     success = false;
                     break;
@@ -125,15 +156,26 @@ public class Generator {
             }
 
             if (success) {
-                return constructor.newInstance(args);
+                return constructors.get(index).newInstance(args);
             }
         }
 
-        throw new IllegalArgumentException("Unable to instantiate type: " + clazz.getName());
+        throw new IllegalArgumentException("Unable to instantiate type: " + type.raw().getName());
+    }
+
+    private Object instantiateRecord(ClassPlan plan, ResolvedType type, int depth) throws InvocationTargetException, InstantiationException, IllegalAccessException {
+        ResolvedType.Members members = type.members();
+        List<RecordComponent> components = plan.recordComponents();
+        Object[] args = new Object[components.size()];
+        for (int i = 0; i < args.length; i++) {
+            Sampler sampler = samplerFor(type.raw(), components.get(i).getName(), members.componentSamplers().get(i));
+            args[i] = sampler != null ? sampler.sample(random) : generateFieldValue(members.components().get(i), depth);
+        }
+        return plan.canonicalConstructor().newInstance(args);
     }
 
-    private Object generateParameterValue(Parameter parameter, int depth) throws InvocationTargetException, InstantiationException, IllegalAccessException {
-        Class<?> rawType = parameter.getType();
+    private Object generateParameterValue(ResolvedType parameterType, int depth) throws InvocationTargetException, InstantiationException, IllegalAccessException {
+        Class<?> rawType = parameterType.raw();
 
         if (rawType.isPrimitive()) {
             return RandomValues.generatePrimitiveValue(rawType, random);
@@ -161,10 +203,11 @@ public class Generator {
             return null;
         }
 
-        return generateValueOfType(rawType, depth);
+        return generateValueOfType(parameterType, depth);
     }
 
-    private Collection<?> generateCollection(Type genericType, Class<?> rawType, int depth) throws InvocationTargetException, InstantiationException, IllegalAccessException {
+    private Collection<?> generateCollection(ResolvedType type, int depth) throws InvocationTargetException, InstantiationException, IllegalAccessException {
+        Class<?> rawType = type.raw();
         int size = maxCollectionSize == 0 ? 0 : random.nextInt(maxCollectionSize + 1);
         Collection<Object> collection;
 
@@ -187,15 +230,16 @@ public class Generator {
             }
         }
 
-        Class<?> elementClass = TypeHelpers.resolveCollectionElementType(genericType);
+        ResolvedType elementType = type.elementType();
         for (int i = 0; i < size; i++) {
-            collection.add(generateCollectionElement(elementClass, depth + 1));
+            collection.add(generateElementForType(elementType, depth + 1));
         }
 
         return collection;
     }
 
-    private Map<?, ?> generateMap(Type genericType, Class<?> rawType, int depth) throws InvocationTargetException, InstantiationException, IllegalAccessException {
+    private Map<?, ?> generateMap(ResolvedType type, int depth) throws InvocationTargetException, InstantiationException, IllegalAccessException {
+        Class<?> rawType = type.raw();
         int size = 1 + random.nextInt(Math.max(1, Math.min(2, maxCollectionSize)));
         Map<Object, Object> map;
 
@@ -210,88 +254,131 @@ public class Generator {
             }
         }
 
-        Class<?>[] kv = TypeHelpers.resolveMapKeyValueTypes(genericType);
-        Class<?> keyClass = kv[0];
-        Class<?> valueClass = kv[1];
+        ResolvedType keyType = type.keyType();
+        ResolvedType valueType = type.valueType();
         for (int i = 0; i < size; i++) {
-            Object key = TypeHelpers.isImmutableKeyType(keyClass) ? generateElementForType(keyClass, depth + 1) : null;
+            Object key = TypeHelpers.isImmutableKeyType(keyType.raw()) ? generateElementForType(keyType, depth + 1) : null;
             if (key == null) continue;
-            Object value = generateElementForType(valueClass, depth + 1);
+            Object value = generateElementForType(valueType, depth + 1);
             map.put(key, value);
         }
         return map;
     }
 
-    private Object generateCollectionElement(Class<?> elementClass, int depth) throws InvocationTargetException, InstantiationException, IllegalAccessException {
-        if (elementClass == Object.class) {
-            return null;
+    private void populateFields(Object instance, ClassPlan plan, ResolvedType type, int depth) throws InvocationTargetException, InstantiationException, IllegalAccessException {
+        if (instance == null || depth > maxDepth) return;
+
+        List<Field> fields = plan.settableFields();
+        ResolvedType.Members members = type.members();
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            Sampler sampler = samplerFor(field.getDeclaringClass(), field.getName(), members.fieldSamplers().get(i));
+            Object value = sampler != null ? sampler.sample(random) : generateFieldValue(members.fields().get(i), depth);
+            try {
+                field.set(instance, value);
+            } catch (IllegalAccessException ignored) {
+            }
         }
-        if (elementClass.isPrimitive()) {
-            return RandomValues.generatePrimitiveValue(elementClass, random);
+    }
+
+    private Sampler samplerFor(Class<?> owner, String name, Sampler declared) {
+        if (distributions.isEmpty()) {
+            return declared;
         }
-        Object basicValue = RandomValues.generateWrapperOrCommon(elementClass, random);
-        if (basicValue != null) {
-            return basicValue;
+        Map<String, Sampler> byName = distributions.get(owner);
+        Sampler configured = byName == null ? null : byName.get(name);
+        return configured != null ? configured : declared;
+    }
+
+    private Object generateFieldValue(ResolvedType type, int depth) throws InvocationTargetException, InstantiationException, IllegalAccessException {
+        Class<?> fType = type.raw();
+        if (fType.isArray()) {
+            ResolvedType component = type.componentType();
+            int size = 1 + random.nextInt(2);
+            Object array = Array.newInstance(component.raw(), size);
+            for (int i = 0; i < size; i++) {
+                Array.set(array, i, generateElementForType(component, depth));
+            }
+            return array;
         }
-        if (depth >= maxDepth) {
-            return null;
+        if (Collection.class.isAssignableFrom(fType)) {
+            return generateCollection(type, depth);
+        }
+        if (Map.class.isAssignableFrom(fType)) {
+            return generateMap(type, depth);
+        }
+        Object simple = tryGenerateSimpleValue(fType);
+        if (simple != null) {
+            return simple;
+        }
+        if (depth < maxDepth) {
+            return generateValueOfType(type, depth);
         }
-        return generateValueOfType(elementClass, depth);
+        return null;
     }
 
-    private void populateFields(Object instance, int depth) throws InvocationTargetException, InstantiationException, IllegalAccessException {
-        if (instance == null || depth > maxDepth) return;
+    // Элементы массивов, коллекций и словарей сами могут быть коллекциями,
+    // например List<List<Product>> или Map<String, Set<Integer>>
+    private Object generateElementForType(ResolvedType elementType, int depth) throws InvocationTargetException, InstantiationException, IllegalAccessException {
+        if (elementType.raw() == Object.class) return null;
+        Object simple = tryGenerateSimpleValue(elementType.raw());
+        if (simple != null) return simple;
+        if (depth >= maxDepth) return null;
+        return generateFieldValue(elementType, depth);
+    }
 
-        Class<?> type = instance.getClass();
-        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
-            Field[] fields = c.getDeclaredFields();
-            for (Field field : fields) {
-                int mod = field.getModifiers();
-                if (Modifier.isStatic(mod) || Modifier.isFinal(mod)) continue;
-
-                field.setAccessible(true);
-                Class<?> fType = field.getType();
-                Type gType = field.getGenericType();
-
-                Object value;
-                if (fType.isArray()) {
-                    Class<?> component = fType.getComponentType();
-                    int size = 1 + random.nextInt(2);
-                    Object array = Array.newInstance(component, size);
-                    for (int i = 0; i < size; i++) {
-                        Array.set(array, i, generateElementForType(component, depth));
-                    }
-                    value = array;
-                } else if (Collection.class.isAssignableFrom(fType)) {
-                    Collection<?> coll = generateCollection(gType, fType, depth);
-                    value = coll;
-                } else if (Map.class.isAssignableFrom(fType)) {
-                    Map<?, ?> m = generateMap(gType, fType, depth);
-                    value = m;
-                } else {
-                    Object simple = tryGenerateSimpleValue(fType);
-                    if (simple != null) {
-                        value = simple;
-                    } else if (depth < maxDepth) {
-                        value = generateValueOfType(fType, depth);
-                    } else {
-                        value = null;
-                    }
-                }
+    public static final class Builder {
+
+        private Random random = new Random();
+        private int maxDepth = DEFAULT_MAX_DEPTH;
+        private int maxCollectionSize = DEFAULT_MAX_COLLECTION_SIZE;
+        private final Map<Class<?>, Map<String, Sampler>> distributions = new HashMap<>();
+
+        private Builder() {}
+
+        public Builder random(Random random) {
+            this.random = Objects.requireNonNull(random, "random");
+            return this;
+        }
 
+        public Builder maxDepth(int maxDepth) {
+            this.maxDepth = maxDepth;
+            return this;
+        }
+
+        public Builder maxCollectionSize(int maxCollectionSize) {
+            this.maxCollectionSize = maxCollectionSize;
+            return this;
+        }
+
+        public Builder distribution(Class<?> type, String fieldName, Distribution distribution) {
+            Objects.requireNonNull(distribution, "distribution");
+            Field field = findField(type, fieldName);
+            // Распределение применяется при дозаполнении полей, final-поле им не заполнить;
+            // у записей все поля final, но их компоненты генерируются с учётом распределений
+            if (Modifier.isFinal(field.getModifiers()) && !field.getDeclaringClass().isRecord()) {
+                throw new IllegalArgumentException("Distribution cannot be applied to final field " + field);
+            }
+            // Компилируем сразу: ошибки конфигурации видны при сборке, а не при генерации
+            distributions.computeIfAbsent(field.getDeclaringClass(), k -> new HashMap<>())
+                    .put(fieldName, distribution.compile(field.getType()));
+            return this;
+        }
+
+        public Generator build() {
+            Map<Class<?>, Map<String, Sampler>> compiled = new HashMap<>();
+            distributions.forEach((owner, byName) -> compiled.put(owner, Map.copyOf(byName)));
+            return new Generator(random, maxDepth, maxCollectionSize, Map.copyOf(compiled));
+        }
+
+        private static Field findField(Class<?> type, String fieldName) {
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
                 try {
-                    field.set(instance, value);
-                } catch (IllegalAccessException ignored) {
+                    return c.getDeclaredField(fieldName);
+                } catch (NoSuchFieldException ignored) {
                 }
             }
+            throw new IllegalArgumentException("No field " + fieldName + " in type " + type.getName());
         }
     }
-
-    private Object generateElementForType(Class<?> elementClass, int depth) throws InvocationTargetException, InstantiationException, IllegalAccessException {
-        if (elementClass == Object.class) return null;
-        Object simple = tryGenerateSimpleValue(elementClass);
-        if (simple != null) return simple;
-        if (depth >= maxDepth) return null;
-        return generateValueOfType(elementClass, depth);
-    }
 }
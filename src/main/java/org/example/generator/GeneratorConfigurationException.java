@@ -0,0 +1,17 @@
+package org.example.generator;
+
+// Ошибка в описании генерируемых типов (например, неприменимая аннотация распределения).
+// Не наследует IllegalArgumentException, чтобы перебор конструкторов не принимал её
+// за неподходящий конструктор и не терял исходную причину
+public class GeneratorConfigurationException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public GeneratorConfigurationException(String message) {
+        super(message);
+    }
+
+    public GeneratorConfigurationException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
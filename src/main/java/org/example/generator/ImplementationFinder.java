@@ -3,11 +3,19 @@ package org.example.generator;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.jar.JarFile;
+import java.util.zip.CRC32;
 
 public final class ImplementationFinder {
 
@@ -15,39 +23,171 @@ public final class ImplementationFinder {
 
     private static final String SCAN_PACKAGE = "org.example.classes";
 
-    private static final ConcurrentHashMap<Class<?>, List<Class<?>>> IMPLEMENTATIONS_CACHE = new ConcurrentHashMap<>();
+    private static final int MAX_CACHED_TYPES = 1024;
+
+    private static final MetadataCache<Implementations> IMPLEMENTATIONS_CACHE =
+            new MetadataCache<>("implementations", MAX_CACHED_TYPES, ImplementationFinder::scan);
+
+    // Отпечаток сканированных классов нужен снимку метаданных; у sealed-типов его нет
+    record Implementations(List<Class<?>> classes, String fingerprint) {}
 
     public static List<Class<?>> findImplementations(Class<?> targetType) {
-        return IMPLEMENTATIONS_CACHE.computeIfAbsent(targetType, t -> {
-            List<Class<?>> found = new ArrayList<>();
-            String path = SCAN_PACKAGE.replace('.', '/');
+        return IMPLEMENTATIONS_CACHE.get(targetType).classes();
+    }
+
+    static MetadataCache<Implementations> cache() {
+        return IMPLEMENTATIONS_CACHE;
+    }
+
+    private static Implementations scan(Class<?> t) {
+        // Для sealed-типов все наследники известны из самого класса, сканирование не нужно
+        if (t.isSealed()) {
+            // Множество убирает повторы в ромбовидных sealed-иерархиях интерфейсов
+            Set<Class<?>> permitted = new LinkedHashSet<>();
+            collectPermitted(t, permitted);
+            return new Implementations(List.copyOf(permitted), null);
+        }
+
+        // Ищем реализации в загрузчике самого типа, чтобы не тянуть классы
+        // из чужих (например, дочерних плагинных) загрузчиков
+        ClassLoader loader = t.getClassLoader() != null
+                ? t.getClassLoader()
+                : Thread.currentThread().getContextClassLoader();
+
+        String path = SCAN_PACKAGE.replace('.', '/');
+        List<URL> sources = new ArrayList<>();
+        try {
+            sources.addAll(Collections.list(loader.getResources(path)));
+        } catch (IOException ignored) {
+        }
+
+        String fingerprint = fingerprint(sources, path);
+        List<String> snapshot = MetadataSnapshot.implementations(t.getName(), fingerprint);
+        if (snapshot != null) {
+            List<Class<?>> restored = fromSnapshot(snapshot, loader);
+            if (restored != null) {
+                return new Implementations(restored, fingerprint);
+            }
+        }
+
+        List<Class<?>> found = new ArrayList<>();
+        for (URL url : sources) {
             try {
-                var resources = Thread.currentThread().getContextClassLoader().getResources(path);
-                while (resources.hasMoreElements()) {
-                    URL url = resources.nextElement();
-                    if ("file".equals(url.getProtocol())) {
-                        File dir = new File(url.toURI());
-                        File[] files = dir.listFiles((d, name) -> name.endsWith(".class") && !name.contains("$"));
-                        if (files == null) continue;
-                        for (File f : files) {
-                            String className = SCAN_PACKAGE + "." + f.getName().substring(0, f.getName().length() - 6);
-                            try {
-                                Class<?> candidate = Class.forName(className);
-                                if (!Modifier.isAbstract(candidate.getModifiers())
-                                        && candidate.getAnnotation(Generatable.class) != null
-                                        && t.isAssignableFrom(candidate)) {
-                                    found.add(candidate);
-                                }
-                            } catch (ClassNotFoundException ignored) {
-                            }
+                for (String className : listClassNames(url, path)) {
+                    try {
+                        Class<?> candidate = Class.forName(className, true, loader);
+                        if (!Modifier.isAbstract(candidate.getModifiers())
+                                && candidate.getAnnotation(Generatable.class) != null
+                                && t.isAssignableFrom(candidate)) {
+                            found.add(candidate);
                         }
+                    } catch (ClassNotFoundException ignored) {
                     }
                 }
             } catch (IOException | URISyntaxException ignored) {
             }
-            return found;
-        });
+        }
+        // Порядок файлов в каталоге зависит от ФС; сортируем, чтобы выбор
+        // реализации при фиксированном seed был воспроизводимым
+        found.sort(Comparator.comparing(Class::getName));
+        return new Implementations(List.copyOf(found), fingerprint);
+    }
+
+    // Отпечаток строится по метаданным файлов без загрузки классов: имя, размер и время
+    // изменения каждого class-файла пакета либо всего jar. Добавленный или перекомпилированный
+    // класс меняет отпечаток, и записи снимка, снятые до этого, перестают использоваться
+    private static String fingerprint(List<URL> sources, String path) {
+        CRC32 crc = new CRC32();
+        StringBuilder description = new StringBuilder();
+        for (URL url : sources) {
+            description.append(url).append('\n');
+            try {
+                if ("file".equals(url.getProtocol())) {
+                    File[] files = new File(url.toURI()).listFiles((d, name) -> name.endsWith(".class"));
+                    if (files == null) continue;
+                    Arrays.sort(files);
+                    for (File f : files) {
+                        describe(description, f);
+                    }
+                } else if ("jar".equals(url.getProtocol())) {
+                    // Сам jar не открываем: хватает его размера и времени изменения
+                    URL jarFile = ((JarURLConnection) url.openConnection()).getJarFileURL();
+                    if ("file".equals(jarFile.getProtocol())) {
+                        describe(description, new File(jarFile.toURI()));
+                    } else {
+                        description.append(jarFile).append('\n');
+                    }
+                } else {
+                    // Источник, который не умеем описать, делает снимок для него неприменимым
+                    return null;
+                }
+            } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+                return null;
+            }
+        }
+        crc.update(description.toString().getBytes(StandardCharsets.UTF_8));
+        return Long.toHexString(crc.getValue());
     }
-}
 
+    private static void describe(StringBuilder description, File file) {
+        description.append(file.getName()).append(' ')
+                .append(file.length()).append(' ')
+                .append(file.lastModified()).append('\n');
+    }
+
+    private static List<String> listClassNames(URL url, String path) throws IOException, URISyntaxException {
+        List<String> classNames = new ArrayList<>();
+        if ("file".equals(url.getProtocol())) {
+            File dir = new File(url.toURI());
+            File[] files = dir.listFiles((d, name) -> name.endsWith(".class") && !name.contains("$"));
+            if (files == null) return classNames;
+            for (File f : files) {
+                classNames.add(SCAN_PACKAGE + "." + f.getName().substring(0, f.getName().length() - 6));
+            }
+        } else if ("jar".equals(url.getProtocol())) {
+            // Запуск из jar нужен, например, для AppCDS-архива лаунчера
+            JarURLConnection connection = (JarURLConnection) url.openConnection();
+            connection.setUseCaches(false);
+            try (JarFile jar = connection.getJarFile()) {
+                String prefix = path + "/";
+                var entries = jar.entries();
+                while (entries.hasMoreElements()) {
+                    String name = entries.nextElement().getName();
+                    if (name.startsWith(prefix) && name.endsWith(".class")
+                            && name.indexOf('/', prefix.length()) < 0 && !name.contains("$")) {
+                        classNames.add(name.substring(0, name.length() - 6).replace('/', '.'));
+                    }
+                }
+            }
+        }
+        return classNames;
+    }
 
+    private static List<Class<?>> fromSnapshot(List<String> classNames, ClassLoader loader) {
+        List<Class<?>> restored = new ArrayList<>(classNames.size());
+        for (String className : classNames) {
+            try {
+                restored.add(Class.forName(className, true, loader));
+            } catch (ClassNotFoundException e) {
+                // Класс из снимка недоступен этому загрузчику — сканируем заново
+                return null;
+            }
+        }
+        return List.copyOf(restored);
+    }
+
+    private static void collectPermitted(Class<?> sealedType, Set<Class<?>> found) {
+        for (Class<?> subclass : sealedType.getPermittedSubclasses()) {
+            boolean isAbstract = subclass.isInterface() || Modifier.isAbstract(subclass.getModifiers());
+            if (!isAbstract && subclass.getAnnotation(Generatable.class) != null) {
+                found.add(subclass);
+            }
+            if (subclass.isSealed()) {
+                collectPermitted(subclass, found);
+            } else if (!Modifier.isFinal(subclass.getModifiers())) {
+                // non-sealed наследник, абстрактный или нет, может расширяться где угодно
+                found.addAll(findImplementations(subclass));
+            }
+        }
+    }
+}
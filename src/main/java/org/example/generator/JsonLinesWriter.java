@@ -0,0 +1,177 @@
+package org.example.generator;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+public final class JsonLinesWriter implements Closeable, Flushable {
+
+    // Защита от циклических графов, которые генератор сам не строит,
+    // но которые могут прийти извне
+    private static final int MAX_NESTING = 64;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+
+    public JsonLinesWriter(Writer out) {
+        this.out = Objects.requireNonNull(out, "out");
+    }
+
+    public void write(Object value) throws IOException {
+        writeValue(value, 0);
+        out.write('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void writeValue(Object value, int nesting) throws IOException {
+        if (nesting > MAX_NESTING) {
+            throw new IllegalArgumentException("Object graph is nested deeper than " + MAX_NESTING + " levels");
+        }
+        if (value == null) {
+            out.write("null");
+        } else if (value instanceof String s) {
+            writeString(s);
+        } else if (value instanceof Character c) {
+            writeString(String.valueOf(c.charValue()));
+        } else if (value instanceof Boolean b) {
+            out.write(b ? "true" : "false");
+        } else if (value instanceof Double d) {
+            writeDouble(d);
+        } else if (value instanceof Float f) {
+            writeFloat(f);
+        } else if (value instanceof Number n) {
+            out.write(n.toString());
+        } else if (value instanceof Enum<?> e) {
+            writeString(e.name());
+        } else if (value instanceof Collection<?> collection) {
+            writeCollection(collection, nesting);
+        } else if (value instanceof Map<?, ?> map) {
+            writeMap(map, nesting);
+        } else if (value.getClass().isArray()) {
+            writeArray(value, nesting);
+        } else if (isPlatformType(value.getClass())) {
+            writeString(value.toString());
+        } else {
+            writeObject(value, nesting);
+        }
+    }
+
+    private void writeObject(Object value, int nesting) throws IOException {
+        List<Field> fields = ClassPlan.of(value.getClass()).instanceFields();
+        out.write('{');
+        for (int i = 0; i < fields.size(); i++) {
+            Field field = fields.get(i);
+            if (i > 0) out.write(',');
+            writeString(field.getName());
+            out.write(':');
+            try {
+                writeValue(field.get(value), nesting + 1);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Cannot read field " + field, e);
+            }
+        }
+        out.write('}');
+    }
+
+    private void writeCollection(Collection<?> collection, int nesting) throws IOException {
+        out.write('[');
+        boolean first = true;
+        for (Object element : collection) {
+            if (!first) out.write(',');
+            first = false;
+            writeValue(element, nesting + 1);
+        }
+        out.write(']');
+    }
+
+    private void writeArray(Object array, int nesting) throws IOException {
+        out.write('[');
+        int length = Array.getLength(array);
+        for (int i = 0; i < length; i++) {
+            if (i > 0) out.write(',');
+            writeValue(Array.get(array, i), nesting + 1);
+        }
+        out.write(']');
+    }
+
+    private void writeMap(Map<?, ?> map, int nesting) throws IOException {
+        out.write('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!first) out.write(',');
+            first = false;
+            Object key = entry.getKey();
+            writeString(key instanceof Enum<?> e ? e.name() : String.valueOf(key));
+            out.write(':');
+            writeValue(entry.getValue(), nesting + 1);
+        }
+        out.write('}');
+    }
+
+    private void writeDouble(double value) throws IOException {
+        // NaN и бесконечности в JSON не представимы
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            out.write("null");
+        } else {
+            out.write(Double.toString(value));
+        }
+    }
+
+    private void writeFloat(float value) throws IOException {
+        // Через double 0.1f превратилось бы в 0.10000000149011612
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            out.write("null");
+        } else {
+            out.write(Float.toString(value));
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        out.write('"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') continue;
+
+            out.write(value, start, i - start);
+            start = i + 1;
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    out.write("\\u00");
+                    out.write(HEX[c >> 4]);
+                    out.write(HEX[c & 0xF]);
+                }
+            }
+        }
+        out.write(value, start, length - start);
+        out.write('"');
+    }
+
+    private static boolean isPlatformType(Class<?> type) {
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.");
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.generator;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+public final class MetadataCache<T> {
+
+    private final String name;
+    private final int maxSize;
+    private final Function<Class<?>, T> loader;
+
+    // Значение хранится в самом Class через ClassValue, поэтому кэш не удерживает
+    // ни классы, ни их загрузчики: при выгрузке загрузчика запись уходит вместе с классом.
+    private final ClassValue<Entry<T>> values = new ClassValue<>() {
+        @Override
+        protected Entry<T> computeValue(Class<?> type) {
+            misses.increment();
+            T value = loader.apply(type);
+            return new Entry<>(value, register(type));
+        }
+    };
+
+    // Слабые ключи нужны только для подсчёта размера и вытеснения.
+    // Значение — отдельный флаг без ссылки на данные, иначе WeakHashMap удерживал бы ключ.
+    private final Map<Class<?>, Slot> keys = new WeakHashMap<>();
+    // Порядок обхода для вытеснения по алгоритму «второго шанса» (CLOCK)
+    private final ArrayDeque<WeakReference<Class<?>>> clock = new ArrayDeque<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public MetadataCache(String name, int maxSize, Function<Class<?>, T> loader) {
+        this.name = Objects.requireNonNull(name, "name");
+        this.maxSize = Math.max(1, maxSize);
+        this.loader = Objects.requireNonNull(loader, "loader");
+    }
+
+    public T get(Class<?> type) {
+        requests.increment();
+        Entry<T> entry = values.get(type);
+        // Пишем счётчик только до насыщения, чтобы горячие типы не гоняли строку кэша между ядрами
+        if (entry.slot.uses < Slot.REFERENCED) {
+            entry.slot.uses++;
+        }
+        return entry.value;
+    }
+
+    public void invalidate(Class<?> type) {
+        boolean present;
+        synchronized (keys) {
+            present = keys.remove(type) != null;
+        }
+        if (present) {
+            values.remove(type);
+            evictions.increment();
+        }
+    }
+
+    public void clear() {
+        for (Class<?> type : trackedKeys()) {
+            invalidate(type);
+        }
+    }
+
+    public Map<Class<?>, T> entries() {
+        Map<Class<?>, T> result = new LinkedHashMap<>();
+        for (Class<?> type : trackedKeys()) {
+            result.put(type, values.get(type).value);
+        }
+        return result;
+    }
+
+    public CacheStats stats() {
+        int size;
+        synchronized (keys) {
+            size = keys.size();
+        }
+        long total = requests.sum();
+        long missed = misses.sum();
+        return new CacheStats(name, size, maxSize, total - missed, missed, evictions.sum());
+    }
+
+    private Slot register(Class<?> type) {
+        Slot slot = new Slot();
+        ArrayList<Class<?>> victims = new ArrayList<>();
+        synchronized (keys) {
+            keys.put(type, slot);
+            clock.addLast(new WeakReference<>(type));
+            // Вытесняем ровно до границы: записи, к которым обращались с прошлого
+            // прохода, получают второй шанс, поэтому горячие типы остаются в кэше
+            int budget = 2 * clock.size() + 1;
+            while (keys.size() - victims.size() > maxSize && budget-- > 0 && !clock.isEmpty()) {
+                WeakReference<Class<?>> reference = clock.pollFirst();
+                Class<?> candidate = reference.get();
+                Slot candidateSlot = candidate == null ? null : keys.get(candidate);
+                if (candidateSlot == null) {
+                    continue;
+                }
+                if (candidate == type) {
+                    clock.addLast(reference);
+                } else if (candidateSlot.uses >= Slot.REFERENCED) {
+                    candidateSlot.uses = Slot.SEEN;
+                    clock.addLast(reference);
+                } else {
+                    victims.add(candidate);
+                }
+            }
+            if (clock.size() > 2 * maxSize) {
+                // Убираем ссылки на выгруженные и уже удалённые классы
+                clock.removeIf(reference -> {
+                    Class<?> tracked = reference.get();
+                    return tracked == null || !keys.containsKey(tracked);
+                });
+            }
+        }
+        for (Class<?> victim : victims) {
+            invalidate(victim);
+        }
+        return slot;
+    }
+
+    private ArrayList<Class<?>> trackedKeys() {
+        synchronized (keys) {
+            return new ArrayList<>(keys.keySet());
+        }
+    }
+
+    private record Entry<T>(T value, Slot slot) {}
+
+    private static final class Slot {
+        // Промах, который загрузил значение, сам по себе не делает запись горячей:
+        // второй шанс получают только записи с повторным обращением после прохода.
+        // Гонка при инкременте безвредна, важен лишь признак
+        static final int SEEN = 1;
+        static final int REFERENCED = 2;
+
+        volatile int uses;
+    }
+}
@@ -0,0 +1,96 @@
+package org.example.generator;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class MetadataSnapshot {
+
+    private MetadataSnapshot() {}
+
+    private static final String HEADER = "# generator-metadata-snapshot v2";
+    private static final String IMPLEMENTATIONS = "impl";
+
+    // Снимок хранит только имена, поэтому не удерживает ни классы, ни загрузчики
+    private static volatile Map<String, IndexEntry> implementationIndex = Map.of();
+
+    // Отпечаток сканируемых классов на момент обучения: запись действительна,
+    // только пока он совпадает с текущим (новый или изменённый класс его меняет)
+    private record IndexEntry(String fingerprint, List<String> implementations) {}
+
+    public static void write(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write(HEADER);
+            out.newLine();
+            for (var entry : ImplementationFinder.cache().entries().entrySet()) {
+                ImplementationFinder.Implementations implementations = entry.getValue();
+                // sealed-типы не сканируются, сохранять для них нечего
+                if (implementations.fingerprint() == null) continue;
+
+                List<String> line = new ArrayList<>();
+                line.add(IMPLEMENTATIONS);
+                line.add(entry.getKey().getName());
+                line.add(implementations.fingerprint());
+                for (Class<?> implementation : implementations.classes()) {
+                    line.add(implementation.getName());
+                }
+                writeLine(out, line);
+            }
+        }
+    }
+
+    public static void load(Path file) throws IOException {
+        Map<String, IndexEntry> implementations = new HashMap<>();
+
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = in.readLine();
+            if (!HEADER.equals(header)) {
+                throw new IOException("Unsupported metadata snapshot: " + file);
+            }
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                String[] parts = line.split("\t", -1);
+                if (parts.length < 3) {
+                    throw new IOException("Malformed metadata snapshot line: " + line);
+                }
+                if (!IMPLEMENTATIONS.equals(parts[0])) {
+                    throw new IOException("Unknown metadata snapshot entry: " + parts[0]);
+                }
+                implementations.put(parts[1],
+                        new IndexEntry(parts[2], List.of(Arrays.copyOfRange(parts, 3, parts.length))));
+            }
+        }
+        implementationIndex = Map.copyOf(implementations);
+    }
+
+    public static void reset() {
+        implementationIndex = Map.of();
+    }
+
+    // Имена реализаций из снимка либо null, если записи нет или она устарела
+    static List<String> implementations(String typeName, String fingerprint) {
+        IndexEntry entry = implementationIndex.get(typeName);
+        if (entry == null || !entry.fingerprint().equals(fingerprint)) {
+            return null;
+        }
+        return entry.implementations();
+    }
+
+    private static void writeLine(BufferedWriter out, List<String> values) throws IOException {
+        out.write(String.join("\t", values));
+        out.newLine();
+    }
+}
@@ -0,0 +1,176 @@
+package org.example.generator;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public final class ResolvedType {
+
+    private final Class<?> raw;
+    private final List<ResolvedType> arguments;
+    private final ResolvedType componentType;
+
+    // Производные типы и типы членов вычисляются один раз на узел дерева.
+    // Узлы живут в планах полей и параметров, поэтому повторного анализа при генерации нет.
+    private volatile ResolvedType elementType;
+    private volatile ResolvedType keyType;
+    private volatile ResolvedType valueType;
+    private volatile Members members;
+    // Типы выбранных реализаций с привязанными параметрами, например ListContainer<Product>
+    // для Container<Product>: без этого каждый экземпляр заново разбирал бы члены реализации
+    private volatile ConcurrentMap<Class<?>, ResolvedType> implementations;
+
+    // Сэмплеры из аннотаций распределений (null, если поле генерируется как обычно)
+    // компилируются вместе с типами членов
+    record Members(List<ResolvedType> fields, List<Sampler> fieldSamplers,
+                   List<ResolvedType> components, List<Sampler> componentSamplers,
+                   List<List<ResolvedType>> constructors) {}
+
+    ResolvedType(Class<?> raw, List<ResolvedType> arguments, ResolvedType componentType) {
+        this.raw = Objects.requireNonNull(raw, "raw");
+        this.arguments = List.copyOf(arguments);
+        this.componentType = componentType;
+    }
+
+    public static ResolvedType of(Class<?> type) {
+        return TypeResolver.selfTypeOf(type);
+    }
+
+    public Class<?> raw() {
+        return raw;
+    }
+
+    public List<ResolvedType> arguments() {
+        return arguments;
+    }
+
+    public ResolvedType componentType() {
+        return componentType;
+    }
+
+    public boolean isParameterized() {
+        return !arguments.isEmpty();
+    }
+
+    public ResolvedType elementType() {
+        ResolvedType element = elementType;
+        if (element == null) {
+            element = TypeResolver.supertypeArgument(this, Collection.class, 0);
+            elementType = element;
+        }
+        return element;
+    }
+
+    public ResolvedType keyType() {
+        ResolvedType key = keyType;
+        if (key == null) {
+            key = TypeResolver.supertypeArgument(this, Map.class, 0);
+            keyType = key;
+        }
+        return key;
+    }
+
+    public ResolvedType valueType() {
+        ResolvedType value = valueType;
+        if (value == null) {
+            value = TypeResolver.supertypeArgument(this, Map.class, 1);
+            valueType = value;
+        }
+        return value;
+    }
+
+    ResolvedType implementation(Class<?> implementation) {
+        if (implementation == raw) {
+            return this;
+        }
+        if (!isParameterized()) {
+            return ResolvedType.of(implementation);
+        }
+        ConcurrentMap<Class<?>, ResolvedType> resolved = implementations;
+        if (resolved == null) {
+            synchronized (this) {
+                resolved = implementations;
+                if (resolved == null) {
+                    resolved = new ConcurrentHashMap<>();
+                    implementations = resolved;
+                }
+            }
+        }
+        return resolved.computeIfAbsent(implementation, type -> TypeResolver.implementationType(this, type));
+    }
+
+    Members members() {
+        Members resolved = members;
+        if (resolved == null) {
+            resolved = resolveMembers();
+            members = resolved;
+        }
+        return resolved;
+    }
+
+    private Members resolveMembers() {
+        ClassPlan plan = ClassPlan.of(raw);
+        var bindings = TypeResolver.hierarchyBindings(this);
+
+        List<ResolvedType> fields = new ArrayList<>(plan.settableFields().size());
+        List<Sampler> fieldSamplers = new ArrayList<>(plan.settableFields().size());
+        for (Field field : plan.settableFields()) {
+            ResolvedType fieldType = TypeResolver.resolve(field.getGenericType(), bindings);
+            fields.add(fieldType);
+            fieldSamplers.add(Distributions.fromAnnotations(field, fieldType.raw()));
+        }
+
+        List<ResolvedType> components = new ArrayList<>(plan.recordComponents().size());
+        List<Sampler> componentSamplers = new ArrayList<>(plan.recordComponents().size());
+        for (RecordComponent component : plan.recordComponents()) {
+            ResolvedType componentType = TypeResolver.resolve(component.getGenericType(), bindings);
+            components.add(componentType);
+            componentSamplers.add(Distributions.fromAnnotations(component, componentType.raw()));
+        }
+
+        List<List<ResolvedType>> constructors = new ArrayList<>(plan.constructors().size());
+        for (Constructor<?> constructor : plan.constructors()) {
+            constructors.add(TypeResolver.resolveParameters(constructor, bindings));
+        }
+        // List.copyOf не допускает null, поэтому списки сэмплеров оборачиваются без копирования
+        return new Members(List.copyOf(fields), Collections.unmodifiableList(fieldSamplers),
+                List.copyOf(components), Collections.unmodifiableList(componentSamplers),
+                List.copyOf(constructors));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ResolvedType that)) return false;
+        return raw == that.raw && arguments.equals(that.arguments) && Objects.equals(componentType, that.componentType);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(raw, arguments, componentType);
+    }
+
+    @Override
+    public String toString() {
+        if (componentType != null) {
+            return componentType + "[]";
+        }
+        if (arguments.isEmpty()) {
+            return raw.getName();
+        }
+        StringBuilder builder = new StringBuilder(raw.getName()).append('<');
+        for (int i = 0; i < arguments.size(); i++) {
+            if (i > 0) builder.append(", ");
+            builder.append(arguments.get(i));
+        }
+        return builder.append('>').toString();
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.generator;
+
+import java.util.Random;
+
+@FunctionalInterface
+public interface Sampler {
+    Object sample(Random random);
+}
@@ -1,7 +1,5 @@
 package org.example.generator;
 
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -21,38 +19,6 @@ public final class TypeHelpers {
             Float.class, Short.class, Byte.class, Character.class
     );
 
-    public static Class<?> resolveCollectionElementType(Type genericType) {
-        if (genericType instanceof ParameterizedType parameterizedType) {
-            Type[] arguments = parameterizedType.getActualTypeArguments();
-            if (arguments.length == 1) {
-                Type argument = arguments[0];
-                if (argument instanceof Class<?> aClass) {
-                    return aClass;
-                }
-                if (argument instanceof ParameterizedType parameterizedArgument) {
-                    Type raw = parameterizedArgument.getRawType();
-                    if (raw instanceof Class<?> aClass) {
-                        return aClass;
-                    }
-                }
-            }
-        }
-        return Object.class;
-    }
-
-    public static Class<?>[] resolveMapKeyValueTypes(Type genericType) {
-        Class<?> key = Object.class;
-        Class<?> value = Object.class;
-        if (genericType instanceof ParameterizedType parameterizedType) {
-            Type[] args = parameterizedType.getActualTypeArguments();
-            if (args.length == 2) {
-                if (args[0] instanceof Class<?> k) key = k;
-                if (args[1] instanceof Class<?> v) value = v;
-            }
-        }
-        return new Class<?>[]{key, value};
-    }
-
     public static boolean isImmutableKeyType(Class<?> cl) {
         if (cl == null) return false;
         if (cl.isEnum()) return true;
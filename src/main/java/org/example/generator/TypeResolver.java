@@ -0,0 +1,257 @@
+package org.example.generator;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+final class TypeResolver {
+
+    private TypeResolver() {}
+
+    private static final int MAX_CACHED_TYPES = 4096;
+
+    private static final MetadataCache<ResolvedType> SELF_TYPES =
+            new MetadataCache<>("resolved-types", MAX_CACHED_TYPES, TypeResolver::selfType);
+
+    static ResolvedType selfTypeOf(Class<?> type) {
+        return SELF_TYPES.get(type);
+    }
+
+    static MetadataCache<ResolvedType> cache() {
+        return SELF_TYPES;
+    }
+
+    static ResolvedType resolve(Type type, Map<TypeVariable<?>, ResolvedType> bindings) {
+        return resolve(type, bindings, new HashSet<>());
+    }
+
+    // Собственный тип класса: параметры типа заменяются их границами
+    private static ResolvedType selfType(Class<?> type) {
+        if (type.isArray()) {
+            ResolvedType component = ResolvedType.of(type.getComponentType());
+            return new ResolvedType(type, List.of(), component);
+        }
+        TypeVariable<?>[] parameters = type.getTypeParameters();
+        List<ResolvedType> arguments = new ArrayList<>(parameters.length);
+        for (TypeVariable<?> parameter : parameters) {
+            arguments.add(resolve(parameter, Map.of()));
+        }
+        return new ResolvedType(type, arguments, null);
+    }
+
+    // Связывает параметры типа самого класса и всех его суперклассов,
+    // например T из Box<T> для class IntBox extends Box<Integer>
+    static Map<TypeVariable<?>, ResolvedType> hierarchyBindings(ResolvedType type) {
+        Map<TypeVariable<?>, ResolvedType> bindings = new HashMap<>();
+        bind(type, bindings);
+        Class<?> current = type.raw();
+        while (current != null && current != Object.class) {
+            Type superclass = current.getGenericSuperclass();
+            if (superclass == null) break;
+            ResolvedType resolvedSuper = resolve(superclass, bindings);
+            bind(resolvedSuper, bindings);
+            current = current.getSuperclass();
+        }
+        return bindings;
+    }
+
+    static List<ResolvedType> resolveParameters(Constructor<?> constructor, Map<TypeVariable<?>, ResolvedType> bindings) {
+        Type[] generic = constructor.getGenericParameterTypes();
+        Class<?>[] raw = constructor.getParameterTypes();
+        // У конструкторов внутренних классов generic-сигнатура может не включать
+        // синтетические параметры, тогда берём стертые типы
+        Type[] types = generic.length == raw.length ? generic : raw;
+        List<ResolvedType> resolved = new ArrayList<>(types.length);
+        for (Type type : types) {
+            resolved.add(resolve(type, bindings));
+        }
+        return List.copyOf(resolved);
+    }
+
+    // Тип реализации, выбранной для запрошенного типа: параметры реализации связываются
+    // с аргументами запрошенного, например ListContainer<T> для Container<Product>
+    // даёт ListContainer<Product>. Несвязанные параметры заменяются их границами
+    static ResolvedType implementationType(ResolvedType requested, Class<?> implementation) {
+        ResolvedType self = ResolvedType.of(implementation);
+        if (!requested.isParameterized() || !self.isParameterized()) {
+            return self;
+        }
+        Map<TypeVariable<?>, ResolvedType> bindings = bindFromSupertype(implementation, requested, new HashSet<>());
+        if (bindings == null || bindings.isEmpty()) {
+            return self;
+        }
+        TypeVariable<?>[] parameters = implementation.getTypeParameters();
+        List<ResolvedType> arguments = new ArrayList<>(parameters.length);
+        for (int i = 0; i < parameters.length; i++) {
+            ResolvedType bound = bindings.get(parameters[i]);
+            arguments.add(bound != null ? bound : self.arguments().get(i));
+        }
+        return new ResolvedType(implementation, arguments, null);
+    }
+
+    // Связывания параметров type, при которых его супертип requested.raw() равен requested
+    private static Map<TypeVariable<?>, ResolvedType> bindFromSupertype(Class<?> type, ResolvedType requested, Set<Class<?>> visited) {
+        if (type == requested.raw()) {
+            Map<TypeVariable<?>, ResolvedType> bindings = new HashMap<>();
+            bind(requested, bindings);
+            return bindings;
+        }
+        if (!requested.raw().isAssignableFrom(type) || !visited.add(type)) {
+            return null;
+        }
+
+        List<Type> supertypes = new ArrayList<>(List.of(type.getGenericInterfaces()));
+        if (type.getGenericSuperclass() != null) {
+            supertypes.add(0, type.getGenericSuperclass());
+        }
+        for (Type supertype : supertypes) {
+            Class<?> superRaw = erase(supertype);
+            Map<TypeVariable<?>, ResolvedType> superBindings = bindFromSupertype(superRaw, requested, visited);
+            if (superBindings == null) continue;
+
+            // Аргументы супертипа записаны через параметры type: сопоставляем их
+            // с уже найденными значениями параметров супертипа
+            Map<TypeVariable<?>, ResolvedType> bindings = new HashMap<>();
+            if (supertype instanceof ParameterizedType parameterized) {
+                Type[] actual = parameterized.getActualTypeArguments();
+                TypeVariable<?>[] superParameters = superRaw.getTypeParameters();
+                for (int i = 0; i < actual.length && i < superParameters.length; i++) {
+                    ResolvedType value = superBindings.get(superParameters[i]);
+                    if (value != null) {
+                        unify(actual[i], value, bindings);
+                    }
+                }
+            }
+            return bindings;
+        }
+        return null;
+    }
+
+    private static void unify(Type declared, ResolvedType actual, Map<TypeVariable<?>, ResolvedType> bindings) {
+        if (declared instanceof TypeVariable<?> variable) {
+            bindings.putIfAbsent(variable, actual);
+        } else if (declared instanceof ParameterizedType parameterized) {
+            Type[] arguments = parameterized.getActualTypeArguments();
+            if (arguments.length == actual.arguments().size()) {
+                for (int i = 0; i < arguments.length; i++) {
+                    unify(arguments[i], actual.arguments().get(i), bindings);
+                }
+            }
+        } else if (declared instanceof GenericArrayType arrayType && actual.componentType() != null) {
+            unify(arrayType.getGenericComponentType(), actual.componentType(), bindings);
+        }
+    }
+
+    // Аргумент супертипа target, например E из Collection<E> для ArrayList<List<Product>>
+    static ResolvedType supertypeArgument(ResolvedType type, Class<?> target, int index) {
+        ResolvedType supertype = findSupertype(type, target, new HashSet<>());
+        if (supertype == null || supertype.arguments().size() <= index) {
+            return ResolvedType.of(Object.class);
+        }
+        return supertype.arguments().get(index);
+    }
+
+    private static ResolvedType findSupertype(ResolvedType type, Class<?> target, Set<Class<?>> visited) {
+        Class<?> raw = type.raw();
+        if (raw == target) {
+            return type;
+        }
+        if (!target.isAssignableFrom(raw) || !visited.add(raw)) {
+            return null;
+        }
+
+        Map<TypeVariable<?>, ResolvedType> bindings = new HashMap<>();
+        bind(type, bindings);
+
+        Type superclass = raw.getGenericSuperclass();
+        if (superclass != null) {
+            ResolvedType found = findSupertype(resolve(superclass, bindings), target, visited);
+            if (found != null) return found;
+        }
+        for (Type anInterface : raw.getGenericInterfaces()) {
+            ResolvedType found = findSupertype(resolve(anInterface, bindings), target, visited);
+            if (found != null) return found;
+        }
+        return null;
+    }
+
+    private static void bind(ResolvedType type, Map<TypeVariable<?>, ResolvedType> bindings) {
+        TypeVariable<?>[] parameters = type.raw().getTypeParameters();
+        List<ResolvedType> arguments = type.arguments();
+        if (arguments.size() != parameters.length) {
+            return;
+        }
+        for (int i = 0; i < parameters.length; i++) {
+            bindings.put(parameters[i], arguments.get(i));
+        }
+    }
+
+    private static ResolvedType resolve(Type type, Map<TypeVariable<?>, ResolvedType> bindings, Set<TypeVariable<?>> resolving) {
+        if (type instanceof Class<?> aClass) {
+            if (aClass.isArray()) {
+                ResolvedType component = resolve(aClass.getComponentType(), bindings, resolving);
+                return new ResolvedType(aClass, List.of(), component);
+            }
+            if (aClass.getTypeParameters().length == 0) {
+                // Обычные классы разделяют один закэшированный экземпляр
+                return ResolvedType.of(aClass);
+            }
+            // Сырой generic-тип: аргументы неизвестны, используются границы
+            return new ResolvedType(aClass, List.of(), null);
+        }
+        if (type instanceof ParameterizedType parameterized) {
+            Class<?> raw = (Class<?>) parameterized.getRawType();
+            Type[] actual = parameterized.getActualTypeArguments();
+            List<ResolvedType> arguments = new ArrayList<>(actual.length);
+            for (Type argument : actual) {
+                arguments.add(resolve(argument, bindings, resolving));
+            }
+            return new ResolvedType(raw, arguments, null);
+        }
+        if (type instanceof GenericArrayType arrayType) {
+            ResolvedType component = resolve(arrayType.getGenericComponentType(), bindings, resolving);
+            return new ResolvedType(component.raw().arrayType(), List.of(), component);
+        }
+        if (type instanceof WildcardType wildcard) {
+            // ? super X — в такую коллекцию можно положить X; ? extends X — берём X
+            Type[] lower = wildcard.getLowerBounds();
+            Type bound = lower.length > 0 ? lower[0] : wildcard.getUpperBounds()[0];
+            return resolve(bound, bindings, resolving);
+        }
+        if (type instanceof TypeVariable<?> variable) {
+            ResolvedType bound = bindings.get(variable);
+            if (bound != null) {
+                return bound;
+            }
+            Type upper = variable.getBounds()[0];
+            // Рекурсивные границы вида T extends Comparable<T> обрываем на стертом типе
+            if (!resolving.add(variable)) {
+                return resolve(erase(upper), bindings, resolving);
+            }
+            try {
+                return resolve(upper, bindings, resolving);
+            } finally {
+                resolving.remove(variable);
+            }
+        }
+        return ResolvedType.of(Object.class);
+    }
+
+    private static Class<?> erase(Type type) {
+        if (type instanceof Class<?> aClass) return aClass;
+        if (type instanceof ParameterizedType parameterized) return (Class<?>) parameterized.getRawType();
+        if (type instanceof GenericArrayType arrayType) return erase(arrayType.getGenericComponentType()).arrayType();
+        if (type instanceof TypeVariable<?> variable) return erase(variable.getBounds()[0]);
+        if (type instanceof WildcardType wildcard) return erase(wildcard.getUpperBounds()[0]);
+        return Object.class;
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.generator;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Категориальное распределение: values[i] выпадает с весом weights[i].
+// Для enum-полей values можно опустить, тогда веса задаются по порядку констант.
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.RECORD_COMPONENT})
+public @interface Weighted {
+    String[] values() default {};
+    double[] weights();
+}
@@ -0,0 +1,16 @@
+package org.example.generator;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Ранги 1..size с вероятностью ~ 1 / rank^exponent.
+// Если заданы values, выбирается values[rank - 1] и size не нужен.
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.RECORD_COMPONENT})
+public @interface Zipf {
+    int size() default 0;
+    double exponent() default 1.0;
+    String[] values() default {};
+}
@@ -1,18 +1,42 @@
 package org.example.generator;
 
 import org.example.classes.BinaryTreeNode;
+import org.example.classes.CardPayment;
 import org.example.classes.Cart;
+import org.example.classes.CashPayment;
+import org.example.classes.Catalog;
+import org.example.classes.InstantTransferPayment;
+import org.example.classes.ListContainer;
+import org.example.classes.Order;
+import org.example.classes.Payment;
 import org.example.classes.Product;
+import org.example.classes.ProductInventory;
+import org.example.classes.Review;
+import org.example.classes.Sentiment;
 import org.example.classes.Shape;
+import org.example.classes.TransferPayment;
+import org.example.classes.Warehouse;
 import org.junit.jupiter.api.RepeatedTest;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class GeneratorTest {
@@ -58,11 +82,282 @@ class GeneratorTest {
         assertTrue(depth <= 3);
     }
 
+    @Test
+    void resolvesSealedImplementationsFromPermittedSubclasses() {
+        List<Class<?>> implementations = ImplementationFinder.findImplementations(Payment.class);
+        assertEquals(List.of(CardPayment.class, CashPayment.class, TransferPayment.class, InstantTransferPayment.class),
+                implementations);
+    }
+
+    @Test
+    void generatesRecordThroughCanonicalConstructor() throws InvocationTargetException, InstantiationException, IllegalAccessException {
+        Order order = (Order) generator.generateValueOfType(Order.class);
+        assertNotNull(order);
+        assertNotNull(order.id());
+        assertNotNull(order.items());
+        assertNotNull(order.payment());
+        for (Product product : order.items()) {
+            assertNotNull(product);
+        }
+    }
+
+    @Test
+    void generatesNestedParameterizedCollections() throws InvocationTargetException, InstantiationException, IllegalAccessException {
+        Generator deepGenerator = new Generator(new Random(7), 4, 3);
+        Catalog catalog = (Catalog) deepGenerator.generateValueOfType(Catalog.class);
+        assertNotNull(catalog);
+        for (List<Product> shelf : catalog.getShelves()) {
+            assertNotNull(shelf);
+            shelf.forEach(product -> assertTrue(product instanceof Product));
+        }
+        assertFalse(catalog.getByCategory().isEmpty());
+        for (List<Product> products : catalog.getByCategory().values()) {
+            assertNotNull(products);
+            products.forEach(product -> assertTrue(product instanceof Product));
+        }
+    }
+
+    @Test
+    void resolvesTypeVariablesBoundThroughGenericSuperclass() throws InvocationTargetException, InstantiationException, IllegalAccessException {
+        ProductInventory inventory = (ProductInventory) generator.generateValueOfType(ProductInventory.class);
+        assertNotNull(inventory);
+        assertEquals(Product[].class, inventory.getFeatured().getClass());
+        for (Product product : inventory.getFeatured()) {
+            assertNotNull(product);
+        }
+        for (Product product : inventory.getItems()) {
+            assertNotNull(product);
+        }
+    }
+
+    @Test
+    void bindsImplementationTypeParametersFromRequestedType() throws InvocationTargetException, InstantiationException, IllegalAccessException {
+        Generator deepGenerator = new Generator(new Random(7), 4, 3);
+        int products = 0;
+        for (int i = 0; i < 20; i++) {
+            Warehouse warehouse = (Warehouse) deepGenerator.generateValueOfType(Warehouse.class);
+            assertNotNull(warehouse);
+            assertEquals(ListContainer.class, warehouse.getStock().getClass());
+            for (Product product : warehouse.getStock().getItems()) {
+                assertNotNull(product);
+                products++;
+            }
+        }
+        assertTrue(products > 0);
+    }
+
+    @Test
+    void reusesBoundImplementationTypeAcrossInstances() throws InvocationTargetException, InstantiationException, IllegalAccessException {
+        ResolvedType stock = ResolvedType.of(Warehouse.class).members().fields().get(0);
+        generator.generateValueOfType(Warehouse.class);
+        ResolvedType first = stock.implementation(ListContainer.class);
+        ResolvedType.Members members = first.members();
+        generator.generateValueOfType(Warehouse.class);
+        ResolvedType second = stock.implementation(ListContainer.class);
+        assertSame(first, second);
+        assertSame(members, second.members());
+        assertEquals("org.example.classes.ListContainer<org.example.classes.Product>", second.toString());
+    }
+
+    @Test
+    void samplesAnnotatedDistributions() throws InvocationTargetException, InstantiationException, IllegalAccessException {
+        Map<Sentiment, Integer> sentiments = new EnumMap<>(Sentiment.class);
+        for (int i = 0; i < 10_000; i++) {
+            Review review = (Review) generator.generateValueOfType(Review.class);
+            assertTrue(review.rating() >= 1 && review.rating() <= 5);
+            assertTrue(review.productId() >= 1 && review.productId() <= 1000);
+            assertTrue(List.of("web", "mobile", "store").contains(review.channel()));
+            sentiments.merge(review.sentiment(), 1, Integer::sum);
+        }
+        assertTrue(sentiments.get(Sentiment.POSITIVE) > sentiments.get(Sentiment.NEUTRAL));
+        assertTrue(sentiments.get(Sentiment.NEUTRAL) > sentiments.get(Sentiment.NEGATIVE));
+    }
+
+    @Test
+    void builderDistributionOverridesDefaultValues() throws InvocationTargetException, InstantiationException, IllegalAccessException {
+        Generator configured = Generator.builder()
+                .random(new Random(42))
+                .distribution(Product.class, "price", Distributions.uniform(10, 20))
+                .build();
+        for (int i = 0; i < 100; i++) {
+            Cart cart = (Cart) configured.generateValueOfType(Cart.class);
+            for (Product product : cart.getItems()) {
+                assertTrue(product.getPrice() >= 10 && product.getPrice() <= 20);
+            }
+        }
+    }
+
+    @Test
+    void rejectsDistributionRangeThatDoesNotFitFieldType() {
+        assertThrows(IllegalArgumentException.class, () -> Distributions.uniform(0, 1000).compile(byte.class));
+        assertThrows(IllegalArgumentException.class, () -> Distributions.zipf(300, 1).compile(byte.class));
+        Sampler bytes = Distributions.uniform(-128, 127).compile(byte.class);
+        Sampler shorts = Distributions.normal(0, 1e6).compile(short.class);
+        Random random = new Random(3);
+        int saturated = 0;
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(Byte.class, bytes.sample(random).getClass());
+            short wide = (Short) shorts.sample(random);
+            if (wide == Short.MIN_VALUE || wide == Short.MAX_VALUE) saturated++;
+        }
+        // Далёкие хвосты прижимаются к границам типа, а не переполняются по кругу
+        assertTrue(saturated > 900, "saturated: " + saturated);
+    }
+
+    @Test
+    void rejectsDistributionOnFinalField() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Generator.builder().distribution(FinalLabel.class, "size", Distributions.uniform(1, 5)));
+        assertThrows(GeneratorConfigurationException.class,
+                () -> generator.generateValueOfType(FinalLabel.class));
+        assertDoesNotThrow(() -> Generator.builder().distribution(Order.class, "id", Distributions.weighted(List.of("a"), 1)));
+    }
+
+    @Test
+    void rejectsDistributionForUnknownField() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Generator.builder().distribution(Product.class, "weight", Distributions.normal(1, 1)));
+    }
+
+    @Test
+    void reportsMisappliedDistributionThroughEnclosingType() {
+        GeneratorConfigurationException direct = assertThrows(GeneratorConfigurationException.class,
+                () -> generator.generateValueOfType(MisannotatedLabel.class));
+        GeneratorConfigurationException nested = assertThrows(GeneratorConfigurationException.class,
+                () -> generator.generateValueOfType(LabelHolder.class));
+        assertTrue(nested.getMessage().contains("not applicable to type: java.lang.String"), nested.getMessage());
+        assertEquals(direct.getMessage(), nested.getMessage());
+    }
+
+    @Test
+    void reusesCachedMetadataForHotTypes() throws InvocationTargetException, InstantiationException, IllegalAccessException {
+        generator.generateValueOfType(Cart.class);
+        CacheStats before = ClassPlan.cache().stats();
+        generator.generateValueOfType(Cart.class);
+        CacheStats after = ClassPlan.cache().stats();
+        assertEquals(before.misses(), after.misses());
+        assertTrue(after.hits() > before.hits());
+    }
+
+    @Test
+    void metadataSnapshotRoundTripsImplementationIndex(@TempDir Path dir) throws Exception {
+        ImplementationFinder.findImplementations(Shape.class);
+        String fingerprint = ImplementationFinder.cache().get(Shape.class).fingerprint();
+        Path file = dir.resolve("metadata.snapshot");
+        MetadataSnapshot.write(file);
+        try {
+            MetadataSnapshot.load(file);
+            assertEquals(
+                    ImplementationFinder.findImplementations(Shape.class).stream().map(Class::getName).toList(),
+                    MetadataSnapshot.implementations(Shape.class.getName(), fingerprint));
+            // Классы изменились после обучения — запись снимка не используется
+            assertNull(MetadataSnapshot.implementations(Shape.class.getName(), fingerprint + "0"));
+            assertNull(MetadataSnapshot.implementations(Payment.class.getName(), null));
+        } finally {
+            MetadataSnapshot.reset();
+        }
+    }
+
+    @Test
+    void writesObjectsAsJsonLinesFromFieldMetadata() throws IOException {
+        StringWriter out = new StringWriter();
+        JsonLinesWriter writer = new JsonLinesWriter(out);
+        Product product = new Product("say \"hi\"\n", 2.5);
+        writer.write(new Cart(List.of(product)));
+        writer.write(new Order("o-1", List.of(), new CashPayment(1.0, 'r')));
+        writer.write(List.of(0.1f, Float.NaN, 0.1));
+        writer.write(new ShadowingLabel());
+        writer.write(new InnerLabel());
+        writer.flush();
+
+        assertEquals("""
+                {"items":[{"name":"say \\"hi\\"\\n","price":2.5}]}
+                {"id":"o-1","items":[],"payment":{"amount":1.0,"currency":"r"}}
+                [0.1,null,0.1]
+                {"x":2}
+                {"text":"inner"}
+                """, out.toString());
+    }
+
+    @Test
+    void metadataCacheEvictsWhenBoundIsExceeded() {
+        MetadataCache<String> cache = new MetadataCache<>("test", 2, Class::getSimpleName);
+        cache.get(Product.class);
+        cache.get(Cart.class);
+        cache.get(Shape.class);
+        CacheStats stats = cache.stats();
+        assertEquals(2, stats.size());
+        assertEquals(1, stats.evictions());
+        assertEquals("Product", cache.get(Product.class));
+    }
+
+    @Test
+    void metadataCacheKeepsHotTypesWhenWorkingSetExceedsBound() {
+        Map<Class<?>, Integer> loads = new HashMap<>();
+        MetadataCache<String> cache = new MetadataCache<>("test", 4, type -> {
+            loads.merge(type, 1, Integer::sum);
+            return type.getSimpleName();
+        });
+        List<Class<?>> cold = List.of(String.class, Integer.class, Long.class, Double.class, Float.class,
+                Short.class, Byte.class, Character.class, Boolean.class, Number.class, Thread.class, Runnable.class);
+        for (int round = 0; round < 3; round++) {
+            for (Class<?> type : cold) {
+                cache.get(type);
+                assertEquals("Product", cache.get(Product.class));
+                assertEquals("Cart", cache.get(Cart.class));
+            }
+        }
+        assertEquals(Integer.valueOf(1), loads.get(Product.class));
+        assertEquals(Integer.valueOf(1), loads.get(Cart.class));
+        assertTrue(cache.stats().size() <= 4);
+    }
+
     private int calculateDepth(BinaryTreeNode node) {
         if (node == null) {
             return 0;
         }
         return 1 + Math.max(calculateDepth(node.getLeft()), calculateDepth(node.getRight()));
     }
-}
 
+    @Generatable
+    static class MisannotatedLabel {
+        @Uniform(min = 0, max = 1)
+        String text;
+    }
+
+    @Generatable
+    static class LabelHolder {
+        final MisannotatedLabel label;
+
+        LabelHolder(MisannotatedLabel label) {
+            this.label = label;
+        }
+    }
+
+    static class BaseLabel {
+        int x = 1;
+    }
+
+    static class ShadowingLabel extends BaseLabel {
+        int x = 2;
+    }
+
+    class InnerLabel {
+        String text = "inner";
+
+        @Override
+        public String toString() {
+            return text + " of " + GeneratorTest.this;
+        }
+    }
+
+    @Generatable
+    static class FinalLabel {
+        @Uniform(min = 1, max = 5)
+        final int size;
+
+        FinalLabel(int size) {
+            this.size = size;
+        }
+    }
+}